@@ -8,6 +8,7 @@ import beast.core.Function;
 import beast.core.Input;
 import beast.core.parameter.IntegerParameter;
 import beast.math.distributions.ParametricDistribution;
+import parameterclone.splitandmerge.CanonicalLayout;
 
 @Citation("Huelsenbeck, J.P., Larget, B., Alfaro, M.E., 2004. "
 		+ "Bayesian Phylogenetic Model Selection Using Reversible Jump Markov Chain Monte Carlo. "
@@ -17,6 +18,8 @@ public class RescaledDirichlet extends ParametricDistribution {
 	public Input<IntegerParameter> nInput = new Input<IntegerParameter>(
 			"sizes", "stores how many indices are pointing to each x");
 
+	int nEntries;
+
 	@Override
 	public double calcLogP(Function pX) {
 		double fLogP = 0;
@@ -29,6 +32,10 @@ public class RescaledDirichlet extends ParametricDistribution {
 				K += 1;
 			}
 			N += n_i;
+			if (N == nEntries) {
+				// The remaining slots are empty.
+				break;
+			}
 		}
 		fLogP += org.apache.commons.math.special.Gamma.logGamma(K);
 		fLogP -= K * Math.log(N);
@@ -37,6 +44,9 @@ public class RescaledDirichlet extends ParametricDistribution {
 
 	@Override
 	public void initAndValidate() {
+		if (nInput.get() != null) {
+			nEntries = CanonicalLayout.countEntries(nInput.get());
+		}
 	}
 
 	@Override
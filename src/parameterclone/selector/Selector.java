@@ -55,6 +55,13 @@ public class Selector extends CalculationNode implements Loggable, Function {
 	// Member objects
 	protected IntegerParameter entries;
 	protected Integer maxIndex;
+	// The resolved values. An array is never modified after it has been
+	// published here, so concurrent readers need no locking.
+	protected volatile double[] values = null;
+	protected double[] storedValues = null;
+	// BEAST only reports changes of the inputs to calculation nodes that the
+	// posterior depends on. Until it does, the values must not be cached.
+	protected volatile boolean notifiedOfChanges = false;
 
 	@Override
 	public void initAndValidate() {
@@ -89,6 +96,72 @@ public class Selector extends CalculationNode implements Loggable, Function {
 		// value = parametersInput[groupingsInput[entry]]
 	}
 
+	/**
+	 * Resolve value = parametersInput[groupingsInput[entry]] for one entry.
+	 */
+	protected double calculateValue(int iDim) {
+		int index = groupingsInput.get().getNativeValue(
+				entries.getNativeValue(iDim));
+		if (index == -1) {
+			return minusOneIsSpecialInput.get().getArrayValue();
+		} else {
+			return parametersInput.get().getValue(index);
+		}
+	}
+
+	/**
+	 * Resolve the values of all entries.
+	 */
+	protected double[] calculateValues() {
+		double[] newValues = new double[entries.getDimension()];
+		for (int i = 0; i < newValues.length; ++i) {
+			newValues[i] = calculateValue(i);
+		}
+		return newValues;
+	}
+
+	/**
+	 * Get the resolved values, calculating them at most once per change of
+	 * the inputs. If several threads find the values missing, each of them
+	 * calculates the same array, so the race is harmless. Nodes outside the
+	 * posterior, eg. used only for logging, calculate them on every call.
+	 */
+	protected double[] getValues() {
+		if (!notifiedOfChanges) {
+			return calculateValues();
+		}
+		double[] current = values;
+		if (current == null) {
+			current = calculateValues();
+			values = current;
+		}
+		return current;
+	}
+
+	/**
+	 * CalculationNode implementation follows *
+	 */
+
+	@Override
+	protected boolean requiresRecalculation() {
+		values = null;
+		notifiedOfChanges = true;
+		return true;
+	}
+
+	@Override
+	protected void store() {
+		storedValues = values;
+		notifiedOfChanges = true;
+		super.store();
+	}
+
+	@Override
+	protected void restore() {
+		values = storedValues;
+		super.restore();
+	}
+
 	/**
 	 * Function interface implementation follows *
 	 */
@@ -100,24 +173,16 @@ public class Selector extends CalculationNode implements Loggable, Function {
 
 	@Override
 	public double getArrayValue() {
-		int index = groupingsInput.get().getNativeValue(
-				entries.getValue());
-		if (index == -1) {
-			return minusOneIsSpecialInput.get().getArrayValue();
-		} else {
-			return parametersInput.get().getValue(index);
-		}
+		return getArrayValue(0);
 	}
 
 	@Override
 	public double getArrayValue(int iDim) {
-		int index = groupingsInput.get().getNativeValue(
-				entries.getNativeValue(iDim));
-		if (index == -1) {
-			return minusOneIsSpecialInput.get().getArrayValue();
-		} else {
-			return parametersInput.get().getValue(index);
+		if (!notifiedOfChanges) {
+			// Nothing is cached, so resolve only the requested entry.
+			return calculateValue(iDim);
 		}
+		return getValues()[iDim];
 	}
 
 	/**
@@ -133,8 +198,10 @@ public class Selector extends CalculationNode implements Loggable, Function {
 
 	@Override
 	public void log(final int nSample, final PrintStream out) {
-		for (int i = 0; i < getDimension(); ++i) {
-			out.print(getArrayValue(i) + "\t");
+		// Loggers run outside the calculation of the posterior, so read the
+		// inputs directly instead of relying on the cached values.
+		for (double value : calculateValues()) {
+			out.print(value + "\t");
 		}
 	}
 
@@ -1,10 +1,13 @@
 package parameterclone.selector;
 
+import java.util.Arrays;
+
 import beast.core.Citation;
 import beast.core.Description;
 import beast.core.Input;
 import beast.core.Input.Validate;
 import beast.core.parameter.IntegerParameter;
+import parameterclone.splitandmerge.CanonicalLayout;
 
 @Description("A calculation node that propagates the used values from a vector of parameters. As opposed to Selector, this class aggregates values into some kind of multiset, useful for analyses where only different values matter.")
 @Citation("Huelsenbeck, J.P., Larget, B., Alfaro, M.E., 2004. "
@@ -14,17 +17,35 @@ public class SelectorSet extends Selector {
 	public Input<IntegerParameter> sizesInput = new Input<IntegerParameter>(
 			"sizes", "stores how many indices are pointing to each parameter",
 			Validate.REQUIRED);
-	
+
+	int nEntries;
+
 	@Override
-	public int getDimension() {
+	public void initAndValidate() {
+		super.initAndValidate();
+		nEntries = CanonicalLayout.countEntries(sizesInput.get());
+	}
+
+	@Override
+	protected double[] calculateValues() {
+		IntegerParameter sizes = sizesInput.get();
+		double[] activeValues = new double[maxIndex];
 		int dim = 0;
-		Integer[] sizes = sizesInput.get().getValues();
-		for (int i = 0; i<maxIndex; ++i){
-			if (sizes[i] > 0) {
+		int seenEntries = 0;
+		for (int i = 0; i<maxIndex && seenEntries < nEntries; ++i){
+			if (sizes.getNativeValue(i) > 0) {
+				int index = groupingsInput.get().getNativeValue(i);
+				activeValues[dim] = parametersInput.get().getValue(index);
 				++dim;
+				seenEntries += sizes.getNativeValue(i);
 			}
 		}
-		return dim;
+		return Arrays.copyOf(activeValues, dim);
+	}
+
+	@Override
+	public int getDimension() {
+		return getValues().length;
 	}
 	
 	@Override
@@ -34,19 +55,11 @@ public class SelectorSet extends Selector {
 
 	@Override
 	public double getArrayValue(int iDim) {
-		int dim = 0;
-		Integer[] sizes = sizesInput.get().getValues();
-		for (int i = 0; i<maxIndex; ++i){
-			if (sizes[i] > 0) {
-				++dim;
-			}
-			if (dim>iDim) {
-				int index = groupingsInput.get().getNativeValue(i);
-				return parametersInput.get().getValue(index);
-			}
+		double[] current = getValues();
+		if (iDim < current.length) {
+			return current[iDim];
 		}
 		return 0;
 	}
 
-
 }
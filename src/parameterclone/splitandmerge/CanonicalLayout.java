@@ -0,0 +1,164 @@
+/* 
+ * Copyright (C) 2015 Gereon Kaiping <gereon.kaiping@soton.ac.uk>
+ *
+ * This file is part of the BEAST2 package parameterclone.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package parameterclone.splitandmerge;
+
+import beast.core.parameter.IntegerParameter;
+import beast.core.parameter.RealParameter;
+
+/**
+ * Helpers for the canonical slot layout of the split and merge operators: The
+ * active groups occupy a contiguous prefix of the parameters and sizes slots,
+ * ordered by their first occurrence in groupings. Every partition then has
+ * exactly one representation.
+ */
+public final class CanonicalLayout {
+	private CanonicalLayout() {
+	}
+
+	/**
+	 * Count the entries of groupings that belong to a group, ie. the sum of
+	 * sizes. Split and merge moves never change it, so scans over sizes may
+	 * stop as soon as they have seen that many entries.
+	 */
+	public static int countEntries(IntegerParameter sizes) {
+		int nEntries = 0;
+		for (int slot = 0; slot < sizes.getDimension(); ++slot) {
+			nEntries += sizes.getNativeValue(slot);
+		}
+		return nEntries;
+	}
+
+	/**
+	 * Fail loudly if the groups in front of the first free slot do not
+	 * account for all entries, which happens when a non-canonical operator
+	 * has left a gap in sizes.
+	 */
+	static void checkPrefix(int scannedEntries, int nEntries) {
+		if (scannedEntries != nEntries) {
+			throw new RuntimeException(
+					"sizes have a gap before the last group, "
+							+ "but all split and merge operators on these parameters must be canonical");
+		}
+	}
+
+	/**
+	 * Check whether sizes count, for each slot, the entries of groupings that
+	 * point to it.
+	 */
+	public static boolean sizesMatchGroupings(IntegerParameter groupings,
+			IntegerParameter sizes) {
+		int[] counts = new int[sizes.getDimension()];
+		for (int item = 0; item < groupings.getDimension(); ++item) {
+			int index = groupings.getNativeValue(item);
+			if (index >= 0) {
+				++counts[index];
+			}
+		}
+		for (int slot = 0; slot < counts.length; ++slot) {
+			if (sizes.getNativeValue(slot) != counts[slot]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Check whether groupings and sizes describe a canonical state.
+	 */
+	public static boolean isCanonical(IntegerParameter groupings,
+			IntegerParameter sizes) {
+		int nGroups = 0;
+		for (int item = 0; item < groupings.getDimension(); ++item) {
+			int index = groupings.getNativeValue(item);
+			if (index > nGroups) {
+				// A group that appears before all groups with lower index
+				return false;
+			}
+			if (index == nGroups) {
+				++nGroups;
+			}
+		}
+		return sizesMatchGroupings(groupings, sizes);
+	}
+
+	/**
+	 * Relabel the groups in order of first occurrence in groupings, moving
+	 * the corresponding parameters and sizes along, so that the active groups
+	 * form a contiguous prefix again. The relabelling is a permutation of the
+	 * slots, so it does not contribute to the Hastings ratio.
+	 * 
+	 * Only the first nSlots slots may be in use. The walk over groupings stops
+	 * as soon as all active groups have been seen without any of them moving.
+	 */
+	static void relabel(RealParameter parameters, IntegerParameter groupings,
+			IntegerParameter sizes, int nSlots) {
+		double[] oldParameters = new double[nSlots];
+		int[] oldSizes = new int[nSlots];
+		int[] newLabel = new int[nSlots];
+		int nActive = 0;
+		for (int slot = 0; slot < nSlots; ++slot) {
+			oldParameters[slot] = parameters.getValue(slot);
+			oldSizes[slot] = sizes.getNativeValue(slot);
+			newLabel[slot] = -1;
+			if (oldSizes[slot] > 0) {
+				++nActive;
+			}
+		}
+
+		int nGroups = 0;
+		boolean moved = false;
+		for (int item = 0; item < groupings.getDimension(); ++item) {
+			if (nGroups == nActive && !moved) {
+				// The remaining entries already carry their final labels.
+				break;
+			}
+			int index = groupings.getNativeValue(item);
+			if (index < 0) {
+				continue;
+			}
+			if (index >= nSlots) {
+				throw new RuntimeException(
+						"groupings use a slot behind the active groups");
+			}
+			if (newLabel[index] == -1) {
+				newLabel[index] = nGroups;
+				++nGroups;
+			}
+			if (newLabel[index] != index) {
+				moved = true;
+				groupings.setValue(item, newLabel[index]);
+			}
+		}
+
+		for (int slot = 0; slot < nSlots; ++slot) {
+			int target = newLabel[slot];
+			if (target >= 0 && target != slot) {
+				parameters.setValue(target, oldParameters[slot]);
+				sizes.setValue(target, oldSizes[slot]);
+			}
+		}
+		// Free the slots behind the prefix that were in use before
+		for (int slot = nGroups; slot < nSlots; ++slot) {
+			if (oldSizes[slot] != 0) {
+				sizes.setValue(slot, 0);
+			}
+		}
+	}
+}
@@ -46,8 +46,14 @@ public class MergeOperator extends Operator {
 	public Input<IntegerParameter> sizesInput = new Input<IntegerParameter>(
 			"sizes", "stores how many indices are pointing to each parameter",
 			(IntegerParameter) null);
+	public Input<Boolean> canonicalInput = new Input<Boolean>(
+			"canonical",
+			"keep the active groups in a contiguous prefix of parameters, ordered by first occurrence in groupings "
+					+ "(must agree between split and merge operators)",
+			false);
 
 	Integer maxIndex;
+	int nEntries;
 
 	@Override
 	public void initAndValidate() {
@@ -60,11 +66,26 @@ public class MergeOperator extends Operator {
 						"All entries in groupings must be valid indices of parameters");
 			}
 		}
+		if (sizesInput.get() == null) {
+			throw new RuntimeException("sizes must be specified");
+		}
 		if (sizesInput.get().getDimension() != parametersInput.get()
 				.getDimension()) {
 			throw new RuntimeException(
 					"sizes must correspond to parameters in dimension");
 		}
+		if (!CanonicalLayout.sizesMatchGroupings(groupingsInput.get(),
+				sizesInput.get())) {
+			throw new RuntimeException(
+					"sizes must count the entries of groupings pointing to each parameter");
+		}
+		if (canonicalInput.get()
+				&& !CanonicalLayout.isCanonical(groupingsInput.get(),
+						sizesInput.get())) {
+			throw new RuntimeException(
+					"In canonical mode, groupings must use parameters in order of first occurrence");
+		}
+		nEntries = CanonicalLayout.countEntries(sizesInput.get());
 	}
 
 	/**
@@ -81,16 +102,24 @@ public class MergeOperator extends Operator {
 		int nGroups = 0;
 		int groupsOfSizeAtLeastTwo = 0;
 		int[] trueGroupIndices = new int[parametersInput.get().getDimension()];
-		int i = 0;
-		for (int size : sizesInput.get(this).getValues()) {
+		int scannedEntries = 0;
+		IntegerParameter sizes = sizesInput.get(this);
+		for (int i = 0; i < sizes.getDimension(); ++i) {
+			int size = sizes.getNativeValue(i);
+			scannedEntries += size;
 			if (size > 0) {
 				trueGroupIndices[nGroups] = i;
 				++nGroups;
 				if (size > 1) {
 					++groupsOfSizeAtLeastTwo;
 				}
+			} else if (canonicalInput.get()) {
+				// In canonical mode, the first free slot ends the groups.
+				break;
 			}
-			++i;
+		}
+		if (canonicalInput.get()) {
+			CanonicalLayout.checkPrefix(scannedEntries, nEntries);
 		}
 
 		if (nGroups < 2) {
@@ -109,7 +138,7 @@ public class MergeOperator extends Operator {
 
 		HashSet<Integer> mergeGroup = new HashSet<Integer>();
 		HashSet<Integer> removeGroup = new HashSet<Integer>();
-		i = 0;
+		int i = 0;
 		for (int index : groupingsInput.get(this).getValues()) {
 			if (index == mergeIndex) {
 				mergeGroup.add(i);
@@ -148,9 +177,14 @@ public class MergeOperator extends Operator {
 				* (mergeGroupSize + removeGroupSize));
 
 		// Update the group size caches
-		sizesInput.get(this).setValue(removeIndex, 0);
-		sizesInput.get(this).setValue(mergeIndex,
-				(mergeGroupSize + removeGroupSize));
+		sizes.setValue(removeIndex, 0);
+		sizes.setValue(mergeIndex, (mergeGroupSize + removeGroupSize));
+
+		if (canonicalInput.get()) {
+			// Close the gap left by the removed group.
+			CanonicalLayout.relabel(parametersInput.get(this),
+					groupingsInput.get(this), sizes, nGroups);
+		}
 
 		// System.out.printf("Merge %d into %d\n", removeIndex, mergeIndex);
 		// Now we calculate the Hastings ratio.
@@ -47,8 +47,14 @@ public class SplitOperator extends Operator {
 	public Input<IntegerParameter> sizesInput = new Input<IntegerParameter>(
 			"sizes", "stores how many indices are pointing to each parameter",
 			(IntegerParameter) null);
+	public Input<Boolean> canonicalInput = new Input<Boolean>(
+			"canonical",
+			"keep the active groups in a contiguous prefix of parameters, ordered by first occurrence in groupings "
+					+ "(must agree between split and merge operators)",
+			false);
 
 	Integer maxIndex;
+	int nEntries;
 
 	@Override
 	public void initAndValidate() {
@@ -61,6 +67,26 @@ public class SplitOperator extends Operator {
 						"All entries in groupings must be valid indices of parameters");
 			}
 		}
+		if (sizesInput.get() == null) {
+			throw new RuntimeException("sizes must be specified");
+		}
+		if (sizesInput.get().getDimension() != parametersInput.get()
+				.getDimension()) {
+			throw new RuntimeException(
+					"sizes must correspond to parameters in dimension");
+		}
+		if (!CanonicalLayout.sizesMatchGroupings(groupingsInput.get(),
+				sizesInput.get())) {
+			throw new RuntimeException(
+					"sizes must count the entries of groupings pointing to each parameter");
+		}
+		if (canonicalInput.get()
+				&& !CanonicalLayout.isCanonical(groupingsInput.get(),
+						sizesInput.get())) {
+			throw new RuntimeException(
+					"In canonical mode, groupings must use parameters in order of first occurrence");
+		}
+		nEntries = CanonicalLayout.countEntries(sizesInput.get());
 	}
 
 	/**
@@ -78,9 +104,12 @@ public class SplitOperator extends Operator {
 		int nGroups = 0;
 		int nGroupsOfSizeAtLeastTwo = 0;
 		int[] trueGroupIndices = new int[parametersInput.get().getDimension()];
-		int i = 0;
 		Integer newIndex = null;
-		for (int size : sizesInput.get(this).getValues()) {
+		int scannedEntries = 0;
+		IntegerParameter sizes = sizesInput.get(this);
+		for (int i = 0; i < sizes.getDimension(); ++i) {
+			int size = sizes.getNativeValue(i);
+			scannedEntries += size;
 			if (size > 0) {
 				++nGroups;
 				if (size > 1) {
@@ -91,8 +120,14 @@ public class SplitOperator extends Operator {
 				if (newIndex == null) {
 					newIndex = i;
 				}
+				if (canonicalInput.get()) {
+					// The free slot found first is the one behind the prefix.
+					break;
+				}
 			}
-			++i;
+		}
+		if (canonicalInput.get()) {
+			CanonicalLayout.checkPrefix(scannedEntries, nEntries);
 		}
 		
 		if (newIndex == null) {
@@ -109,7 +144,7 @@ public class SplitOperator extends Operator {
 		int splitIndex = trueGroupIndices[rawSplitIndex];
 
 		HashSet<Integer> splitGroup = new HashSet<Integer>();
-		i = 0;
+		int i = 0;
 		for (int index : groupingsInput.get(this).getValues()) {
 			if (index == splitIndex) {
 				splitGroup.add(i);
@@ -166,8 +201,14 @@ public class SplitOperator extends Operator {
 				.log(rate * (oldGroupSize + newGroupSize));
 
 		// Update the group size caches
-		sizesInput.get(this).setValue(newIndex, newGroupSize);
-		sizesInput.get(this).setValue(splitIndex, oldGroupSize);
+		sizes.setValue(newIndex, newGroupSize);
+		sizes.setValue(splitIndex, oldGroupSize);
+
+		if (canonicalInput.get()) {
+			// The new group may occur before groups with lower index.
+			CanonicalLayout.relabel(parametersInput.get(this),
+					groupingsInput.get(this), sizes, newIndex + 1);
+		}
 
 		// System.out.printf("Split %d into %d\n", splitIndex, newIndex);
 		// Now we calculate the Hastings ratio.
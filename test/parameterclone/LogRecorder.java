@@ -0,0 +1,60 @@
+package parameterclone;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import beast.core.BEASTObject;
+import beast.core.Function;
+import beast.core.Input;
+import beast.core.Loggable;
+
+/**
+ * Records what the logged objects print in each sample, followed by the
+ * values the functions return, so that tests can inspect the trace after the
+ * run. samples.get(n)[i][j] is the j-th value of the i-th object in the n-th
+ * logged sample.
+ */
+public class LogRecorder extends BEASTObject implements Loggable {
+	public Input<List<BEASTObject>> logInput = new Input<List<BEASTObject>>(
+			"log", "objects to record", new ArrayList<BEASTObject>());
+	public Input<List<Function>> functionInput = new Input<List<Function>>(
+			"function", "functions whose values to record",
+			new ArrayList<Function>());
+
+	public List<String[][]> samples = new ArrayList<String[][]>();
+
+	@Override
+	public void initAndValidate() {
+	}
+
+	@Override
+	public void init(final PrintStream out) {
+	}
+
+	@Override
+	public void log(final int nSample, final PrintStream out) {
+		int nLogged = logInput.get().size();
+		String[][] sample = new String[nLogged + functionInput.get().size()][];
+		for (int i = 0; i < nLogged; ++i) {
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			((Loggable) logInput.get().get(i)).log(nSample, new PrintStream(
+					buffer));
+			sample[i] = buffer.toString().split("\t");
+		}
+		for (int i = 0; i < functionInput.get().size(); ++i) {
+			Function function = functionInput.get().get(i);
+			sample[nLogged + i] = new String[function.getDimension()];
+			for (int j = 0; j < function.getDimension(); ++j) {
+				sample[nLogged + i][j] = Double.toString(function
+						.getArrayValue(j));
+			}
+		}
+		samples.add(sample);
+	}
+
+	@Override
+	public void close(final PrintStream out) {
+	}
+}
@@ -0,0 +1,95 @@
+package parameterclone;
+
+import parameterclone.helpers.RescaledDirichlet;
+import parameterclone.splitandmerge.MergeOperator;
+import parameterclone.splitandmerge.SplitOperator;
+import beast.core.BEASTObject;
+import beast.core.Distribution;
+import beast.core.Logger;
+import beast.core.MCMC;
+import beast.core.Operator;
+import beast.core.State;
+import beast.core.parameter.IntegerParameter;
+import beast.core.parameter.RealParameter;
+import beast.math.distributions.Prior;
+
+/**
+ * A split and merge chain on a partition of length entries, starting with
+ * every entry in a group of its own, under the RescaledDirichlet prior.
+ */
+public class SplitMergeChain {
+	public RealParameter parameters;
+	public IntegerParameter groupings;
+	public IntegerParameter sizes;
+	public State state;
+	public Distribution prior;
+	public Operator merger;
+	public Operator splitter;
+
+	public SplitMergeChain(int length, boolean canonical) throws Exception {
+		Double[] m_parameters = new Double[length];
+		Integer[] m_indices = new Integer[length];
+		Integer[] m_sizes = new Integer[length];
+		for (int i = 0; i < length; ++i) {
+			m_parameters[i] = 1.;
+			m_indices[i] = i;
+			m_sizes[i] = 1;
+		}
+		parameters = new RealParameter(m_parameters);
+		groupings = new IntegerParameter(m_indices);
+		sizes = new IntegerParameter(m_sizes);
+		state = new State();
+		state.initByName("stateNode", parameters, "stateNode", groupings,
+				"stateNode", sizes);
+
+		RescaledDirichlet rescaledDirichlet = new RescaledDirichlet();
+		rescaledDirichlet.initByName("sizes", sizes);
+
+		prior = new Prior();
+		prior.initByName("x", parameters, "distr", rescaledDirichlet);
+
+		merger = new MergeOperator();
+		merger.initByName("parameters", parameters, "groupings", groupings,
+				"sizes", sizes, "canonical", canonical, "weight", 1.);
+		splitter = new SplitOperator();
+		splitter.initByName("parameters", parameters, "groupings", groupings,
+				"sizes", sizes, "canonical", canonical, "weight", 1.);
+	}
+
+	/**
+	 * Run the chain on the given posterior, recording the logged objects
+	 * every logEvery samples.
+	 */
+	public LogRecorder run(int chainLength, int logEvery,
+			Distribution posterior, BEASTObject... logged) throws Exception {
+		LogRecorder recorder = new LogRecorder();
+		for (BEASTObject object : logged) {
+			recorder.setInputValue("log", object);
+		}
+		recorder.initAndValidate();
+		return run(chainLength, logEvery, posterior, recorder);
+	}
+
+	/**
+	 * Run the chain on the given posterior, with a recorder that has been set
+	 * up by the caller.
+	 */
+	public LogRecorder run(int chainLength, int logEvery,
+			Distribution posterior, LogRecorder recorder) throws Exception {
+		MCMC mcmc = new MCMC();
+		if (recorder.logInput.get().isEmpty()
+				&& recorder.functionInput.get().isEmpty()) {
+			mcmc.initByName("chainLength", chainLength, "preBurnin", 1,
+					"state", state, "distribution", posterior, "operator",
+					merger, "operator", splitter);
+		} else {
+			Logger logger = new Logger();
+			logger.initByName("logEvery", logEvery, "log", recorder);
+			mcmc.initByName("chainLength", chainLength, "preBurnin", 1,
+					"state", state, "distribution", posterior, "operator",
+					merger, "operator", splitter, "logger", logger);
+		}
+		mcmc.run();
+		return recorder;
+	}
+}
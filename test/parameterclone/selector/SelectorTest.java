@@ -0,0 +1,146 @@
+package parameterclone.selector;
+
+import junit.framework.TestCase;
+import parameterclone.LogRecorder;
+import parameterclone.SplitMergeChain;
+import beast.core.Distribution;
+import beast.core.Function;
+import beast.core.Input;
+import beast.core.Input.Validate;
+import beast.core.Operator;
+import beast.core.State;
+import beast.core.parameter.IntegerParameter;
+import beast.core.parameter.RealParameter;
+import beast.core.util.CompoundDistribution;
+import beast.math.distributions.Prior;
+import beast.math.distributions.Uniform;
+
+public class SelectorTest extends TestCase {
+	int length = 5;
+
+	/**
+	 * Walk through one rejected proposal the way MCMC does, and check the
+	 * values of a Selector and a SelectorSet after each step.
+	 */
+	public void testStoreCheckDirtinessRestore() throws Exception {
+		RealParameter parameters = new RealParameter(new Double[] { 1., 2., 3. });
+		IntegerParameter groupings = new IntegerParameter(new Integer[] { 0,
+				1, 1 });
+		IntegerParameter sizes = new IntegerParameter(new Integer[] { 1, 2, 0 });
+		State state = new State();
+		state.initByName("stateNode", parameters, "stateNode", groupings,
+				"stateNode", sizes);
+
+		Selector selector = new Selector();
+		selector.initByName("parameters", parameters, "groupings", groupings);
+		SelectorSet selectorSet = new SelectorSet();
+		selectorSet.initByName("parameters", parameters, "groupings",
+				groupings, "sizes", sizes);
+
+		Distribution posterior = new CompoundDistribution();
+		posterior.initByName("distribution", uniformPrior(selector),
+				"distribution", uniformPrior(selectorSet));
+
+		Operator operator = new SetValuesOperator();
+		operator.initByName("parameters", parameters, "groupings", groupings,
+				"sizes", sizes, "weight", 1.);
+
+		state.initialise();
+		state.setPosterior(posterior);
+		state.robustlyCalcPosterior(posterior);
+		assertValues(new double[] { 1., 2., 2. }, selector);
+		assertValues(new double[] { 1., 2. }, selectorSet);
+
+		state.store(0);
+		operator.proposal();
+		state.storeCalculationNodes();
+		state.checkCalculationNodesDirtiness();
+		assertValues(new double[] { 4., 2., 5. }, selector);
+		assertValues(new double[] { 4., 2., 5. }, selectorSet);
+
+		state.restore();
+		state.restoreCalculationNodes();
+		assertValues(new double[] { 1., 2., 2. }, selector);
+		assertValues(new double[] { 1., 2. }, selectorSet);
+	}
+
+	/**
+	 * Run a split and merge chain with one Selector the posterior depends on
+	 * and one that is only logged, and check that every value they log or
+	 * return is parameters[groupings[entry]].
+	 */
+	public void testLoggedValuesFollowChain() throws Exception {
+		SplitMergeChain chain = new SplitMergeChain(length, false);
+
+		Selector usedSelector = new Selector();
+		usedSelector.initByName("parameters", chain.parameters, "groupings",
+				chain.groupings);
+		Selector loggedSelector = new Selector();
+		loggedSelector.initByName("parameters", chain.parameters,
+				"groupings", chain.groupings);
+
+		Distribution posterior = new CompoundDistribution();
+		posterior.initByName("distribution", chain.prior, "distribution",
+				uniformPrior(usedSelector));
+
+		LogRecorder recorder = new LogRecorder();
+		recorder.initByName("log", chain.parameters, "log", chain.groupings,
+				"log", usedSelector, "log", loggedSelector, "function",
+				usedSelector, "function", loggedSelector);
+		chain.run(2000, 1, posterior, recorder);
+
+		assertTrue(recorder.samples.size() > 0);
+		for (String[][] sample : recorder.samples) {
+			for (int entry = 0; entry < length; ++entry) {
+				double expected = Double.parseDouble(sample[0][Integer
+						.parseInt(sample[1][entry])]);
+				for (int i = 2; i < sample.length; ++i) {
+					assertEquals(expected,
+							Double.parseDouble(sample[i][entry]), 0.);
+				}
+			}
+		}
+	}
+
+	Prior uniformPrior(Function x) throws Exception {
+		Uniform uniform = new Uniform();
+		uniform.initByName("lower", 0., "upper", 100.);
+		Prior prior = new Prior();
+		prior.initByName("x", x, "distr", uniform);
+		return prior;
+	}
+
+	void assertValues(double[] expected, Selector selector) {
+		assertEquals(expected.length, selector.getDimension());
+		for (int i = 0; i < expected.length; ++i) {
+			assertEquals(expected[i], selector.getArrayValue(i), 0.);
+		}
+	}
+
+	/**
+	 * Changes parameters [1 2 3] to [4 2 5], groupings [0 1 1] to [0 1 2] and
+	 * sizes [1 2 0] to [1 1 1].
+	 */
+	public static class SetValuesOperator extends Operator {
+		public Input<RealParameter> parametersInput = new Input<RealParameter>(
+				"parameters", "parameters to change", Validate.REQUIRED);
+		public Input<IntegerParameter> groupingsInput = new Input<IntegerParameter>(
+				"groupings", "groupings to change", Validate.REQUIRED);
+		public Input<IntegerParameter> sizesInput = new Input<IntegerParameter>(
+				"sizes", "sizes to change", Validate.REQUIRED);
+
+		@Override
+		public void initAndValidate() {
+		}
+
+		@Override
+		public double proposal() {
+			parametersInput.get(this).setValue(0, 4.);
+			parametersInput.get(this).setValue(2, 5.);
+			groupingsInput.get(this).setValue(2, 2);
+			sizesInput.get(this).setValue(1, 1);
+			sizesInput.get(this).setValue(2, 1);
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package parameterclone.splitandmerge;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import parameterclone.LogRecorder;
+import parameterclone.SplitMergeChain;
+import beast.core.parameter.IntegerParameter;
+import beast.core.parameter.RealParameter;
+import beast.util.Randomizer;
+
+public class CanonicalLayoutTest extends TestCase {
+	int length = 4;
+
+	public void testRelabelAfterSplit() {
+		// Group 0 of [0 0 1 0] was split, moving item 1 into the new slot 2.
+		RealParameter parameters = new RealParameter(new Double[] { 0.5, 2.,
+				1.5, 7. });
+		IntegerParameter groupings = new IntegerParameter(new Integer[] { 0,
+				2, 1, 0 });
+		IntegerParameter sizes = new IntegerParameter(new Integer[] { 2, 1, 1,
+				0 });
+
+		CanonicalLayout.relabel(parameters, groupings, sizes, 3);
+
+		assertValues(new int[] { 0, 1, 2, 0 }, groupings);
+		assertValues(new int[] { 2, 1, 1, 0 }, sizes);
+		assertEquals(0.5, parameters.getValue(0), 0.);
+		assertEquals(1.5, parameters.getValue(1), 0.);
+		assertEquals(2., parameters.getValue(2), 0.);
+		assertTrue(CanonicalLayout.isCanonical(groupings, sizes));
+	}
+
+	public void testRelabelAfterMergeOfMiddleSlot() {
+		// Group 1 of [0 1 2 1 2] was merged into group 2.
+		RealParameter parameters = new RealParameter(new Double[] { 1., 2.,
+				2.5, 0., 0. });
+		IntegerParameter groupings = new IntegerParameter(new Integer[] { 0,
+				2, 2, 2, 2 });
+		IntegerParameter sizes = new IntegerParameter(new Integer[] { 1, 0, 4,
+				0, 0 });
+
+		CanonicalLayout.relabel(parameters, groupings, sizes, 3);
+
+		assertValues(new int[] { 0, 1, 1, 1, 1 }, groupings);
+		assertValues(new int[] { 1, 4, 0, 0, 0 }, sizes);
+		assertEquals(1., parameters.getValue(0), 0.);
+		assertEquals(2.5, parameters.getValue(1), 0.);
+		assertTrue(CanonicalLayout.isCanonical(groupings, sizes));
+	}
+
+	public void testRelabelSkipsMinusOne() {
+		RealParameter parameters = new RealParameter(new Double[] { 1., 2., 0. });
+		IntegerParameter groupings = new IntegerParameter(new Integer[] { -1,
+				1, 0, -1 });
+		IntegerParameter sizes = new IntegerParameter(new Integer[] { 1, 1, 0 });
+		assertFalse(CanonicalLayout.isCanonical(groupings, sizes));
+
+		CanonicalLayout.relabel(parameters, groupings, sizes, 2);
+
+		assertValues(new int[] { -1, 0, 1, -1 }, groupings);
+		assertValues(new int[] { 1, 1, 0 }, sizes);
+		assertEquals(2., parameters.getValue(0), 0.);
+		assertEquals(1., parameters.getValue(1), 0.);
+		assertTrue(CanonicalLayout.isCanonical(groupings, sizes));
+	}
+
+	public void testIsCanonical() {
+		assertTrue(CanonicalLayout.isCanonical(new IntegerParameter(
+				new Integer[] { 0, 0, 1 }), new IntegerParameter(new Integer[] {
+				2, 1, 0 })));
+		// Labels out of order of first occurrence
+		assertFalse(CanonicalLayout.isCanonical(new IntegerParameter(
+				new Integer[] { 1, 0, 0 }), new IntegerParameter(new Integer[] {
+				2, 1, 0 })));
+		// Sizes that do not count the groupings
+		assertFalse(CanonicalLayout.isCanonical(new IntegerParameter(
+				new Integer[] { 0, 0, 1 }), new IntegerParameter(new Integer[] {
+				1, 2, 0 })));
+		// A gap in sizes
+		assertFalse(CanonicalLayout.isCanonical(new IntegerParameter(
+				new Integer[] { 0, 0, 1 }), new IntegerParameter(new Integer[] {
+				2, 0, 1 })));
+	}
+
+	/**
+	 * Run the split and merge chain in default and in canonical mode. The
+	 * canonical chain must stay canonical, and both chains must visit the
+	 * partitions with the same frequencies, up to 20% of the frequency.
+	 */
+	public void testCanonicalChainMatchesDefaultChain() throws Exception {
+		Randomizer.setSeed(127);
+		Map<String, Integer> defaultCounts = countPartitions(false);
+		Map<String, Integer> canonicalCounts = countPartitions(true);
+
+		int defaultTotal = 0;
+		for (int count : defaultCounts.values()) {
+			defaultTotal += count;
+		}
+		int canonicalTotal = 0;
+		for (int count : canonicalCounts.values()) {
+			canonicalTotal += count;
+		}
+		// There are 15 partitions of 4 items, all of them should be visited.
+		assertEquals(15, defaultCounts.size());
+		assertEquals(defaultCounts.keySet(), canonicalCounts.keySet());
+		for (String partition : defaultCounts.keySet()) {
+			double defaultFrequency = (double) defaultCounts.get(partition)
+					/ defaultTotal;
+			double canonicalFrequency = (double) canonicalCounts
+					.get(partition) / canonicalTotal;
+			assertEquals(partition, defaultFrequency, canonicalFrequency,
+					0.1 * (defaultFrequency + canonicalFrequency));
+		}
+	}
+
+	public void testMixedOperatorsFailLoudly() throws Exception {
+		Randomizer.setSeed(127);
+		SplitMergeChain chain = new SplitMergeChain(length, false);
+		chain.splitter = new SplitOperator();
+		chain.splitter.initByName("parameters", chain.parameters,
+				"groupings", chain.groupings, "sizes", chain.sizes,
+				"canonical", true, "weight", 1.);
+		try {
+			chain.run(10000, 10, chain.prior);
+			fail("A canonical operator must detect the gaps left by a default one");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("canonical"));
+		}
+	}
+
+	/**
+	 * Count how often each partition is logged, labelling groups by first
+	 * occurrence so that equal partitions get equal keys in both modes.
+	 */
+	Map<String, Integer> countPartitions(boolean canonical) throws Exception {
+		SplitMergeChain chain = new SplitMergeChain(length, canonical);
+		LogRecorder recorder = chain.run(1000000, 10, chain.prior,
+				chain.groupings, chain.sizes);
+
+		Map<String, Integer> counts = new HashMap<String, Integer>();
+		for (String[][] sample : recorder.samples) {
+			Integer[] groupings = parse(sample[0]);
+			if (canonical) {
+				assertTrue(CanonicalLayout.isCanonical(new IntegerParameter(
+						groupings), new IntegerParameter(parse(sample[1]))));
+			}
+			int[] label = new int[groupings.length];
+			Arrays.fill(label, -1);
+			StringBuilder key = new StringBuilder();
+			int nGroups = 0;
+			for (int index : groupings) {
+				if (label[index] == -1) {
+					label[index] = nGroups;
+					++nGroups;
+				}
+				key.append(label[index]);
+			}
+			String partition = key.toString();
+			Integer count = counts.get(partition);
+			counts.put(partition, count == null ? 1 : count + 1);
+		}
+		return counts;
+	}
+
+	Integer[] parse(String[] logged) {
+		Integer[] values = new Integer[logged.length];
+		for (int i = 0; i < logged.length; ++i) {
+			values[i] = Integer.parseInt(logged[i]);
+		}
+		return values;
+	}
+
+	void assertValues(int[] expected, IntegerParameter actual) {
+		assertEquals(expected.length, actual.getDimension());
+		for (int i = 0; i < expected.length; ++i) {
+			assertEquals(expected[i], actual.getNativeValue(i));
+		}
+	}
+}